@@ -1,17 +1,33 @@
 package SchedulingPolicies;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * 
@@ -63,7 +79,23 @@ public class JobScheduling {
 	 * Description: Abstract method to implement various job scheduling algorithms
 	 * */
 	public abstract class Scheduler {
+		/* Optional, used by RoundRobin & ShortestRemainingTimeFirst to checkpoint & resume long runs */
+		Checkpointer checkpointer;
+		
 		public abstract void schedule(ProcessDetail p, String inputFileName) throws IOException;
+		public abstract ProcessDetail getProcessFinishTime(ProcessDetail p);
+		public abstract ProcessDetail getProcessTAT(ProcessDetail p);
+		public abstract ProcessDetail getProcessWaitTime(ProcessDetail p);
+		
+		/**Method: simulate 
+		* Description: Computes finish, turnaround & wait times without writing any output file
+		* */
+		public ProcessDetail simulate(ProcessDetail p) {
+			p = this.getProcessFinishTime(p);
+			p = this.getProcessTAT(p);
+			p = this.getProcessWaitTime(p);
+			return p;
+		}
 	}
 	
 	/**Class Name: ShortJobFirst
@@ -75,9 +107,7 @@ public class JobScheduling {
 		* 			   and writes to a text file <inputFileName>_SJF
 		* */
 		public void schedule(ProcessDetail p, String inputFileName) throws IOException {
-			p = this.getProcessFinishTime(p);
-			p = this.getProcessTAT(p);
-			p = this.getProcessWaitTime(p);
+			p = this.simulate(p);
 			String fileName = inputFileName + "_SJF";
 			saveOutputFile(p, fileName);
 		}
@@ -136,9 +166,7 @@ public class JobScheduling {
 		* 			   and writes to a text file <inputFileName>_FCFS
 		* */
 		public void schedule(ProcessDetail p, String inputFileName) throws IOException {
-			p = this.getProcessFinishTime(p);
-			p = this.getProcessTAT(p);
-			p = this.getProcessWaitTime(p);
+			p = this.simulate(p);
 			String fileName = inputFileName + "_FCFS";
 			saveOutputFile(p, fileName);
 		}
@@ -184,50 +212,72 @@ public class JobScheduling {
 		* 			   and writes to a text file <inputFileName>_RR
 		* */
 		public void schedule(ProcessDetail p, String inputFileName) throws IOException {
-			p = this.getProcessFinishTime(p);
-			p = this.getProcessTAT(p);
-			p = this.getProcessWaitTime(p);
+			p = this.simulate(p);
 			String fileName = inputFileName + "_RR";
 			saveOutputFile(p, fileName);
+			if(checkpointer != null)
+				checkpointer.clear();
 		}
 		
 		public ProcessDetail getProcessFinishTime(ProcessDetail p) {
 			Queue<Integer> activeQueue = new LinkedList<Integer>();
 			Queue<Integer> waitQueue = new LinkedList<Integer>();
+			/* Processes of the current round still to run, the head runs next */
+			Queue<Integer> activeTemp = new LinkedList<Integer>();
 			long sysTime = p.processArray[0].arrivalTime;
 			long[] remainingTime = new long[p.noOfProcess];
-			for(int i = 0; i < p.noOfProcess; i++) {
-				remainingTime[i] = p.processArray[i].cpuBurstTime;
+			int countOfExeProcess = 0;
+			Snapshot resumed = checkpointer == null ? null : checkpointer.load(p, AlgorithmName.rr);
+			if(resumed != null) {
+				sysTime = resumed.sysTime;
+				remainingTime = resumed.remainingTime;
+				countOfExeProcess = resumed.countOfExeProcess;
+				for(int i: resumed.activeQueue)
+					activeTemp.add(i);
+				for(int i: resumed.queue)
+					waitQueue.add(i);
 			}
-			
-			for(int i = 0; i < p.noOfProcess; i++) {
-				if(p.processArray[i].arrivalTime <= sysTime && !p.processArray[i].executed) {
-					waitQueue.add(Integer.valueOf(i));
+			else {
+				for(int i = 0; i < p.noOfProcess; i++) {
+					remainingTime[i] = p.processArray[i].cpuBurstTime;
+				}
+				
+				for(int i = 0; i < p.noOfProcess; i++) {
+					if(p.processArray[i].arrivalTime <= sysTime && !p.processArray[i].executed) {
+						waitQueue.add(Integer.valueOf(i));
+					}
 				}
 			}
 			
 			while(true) {
-				activeQueue.addAll(waitQueue);
-				waitQueue.clear();
-				if(activeQueue.isEmpty() && waitQueue.isEmpty()) {
-					int b = 0;
-					for(int i = 0; i < p.noOfProcess; i++) {
-						if(!p.processArray[i].executed) {
-							b = i;
-							break;
+				/* A resumed run may start in the middle of a round */
+				if(activeTemp.isEmpty()) {
+					activeQueue.addAll(waitQueue);
+					waitQueue.clear();
+					if(activeQueue.isEmpty() && waitQueue.isEmpty()) {
+						int b = 0;
+						for(int i = 0; i < p.noOfProcess; i++) {
+							if(!p.processArray[i].executed) {
+								b = i;
+								break;
+							}
 						}
-					}
-					sysTime = p.processArray[b].arrivalTime;
-					for(int i = 0; i < p.noOfProcess; i++) {
-						if(p.processArray[i].arrivalTime <= sysTime && !p.processArray[i].executed) {
-							activeQueue.add(i);
+						sysTime = p.processArray[b].arrivalTime;
+						for(int i = 0; i < p.noOfProcess; i++) {
+							if(p.processArray[i].arrivalTime <= sysTime && !p.processArray[i].executed) {
+								activeQueue.add(i);
+							}
 						}
 					}
+					activeTemp.addAll(activeQueue);
+					activeQueue.clear();
 				}
-				Queue<Integer> activeTemp = new LinkedList<Integer>();
-				activeTemp.addAll(activeQueue);
 				
-				for(int curr: activeQueue) {
+				while(!activeTemp.isEmpty()) {
+					/* Checked once per slice so the gap between snapshots does not grow with the round */
+					if(checkpointer != null && checkpointer.due())
+						checkpointer.save(p, AlgorithmName.rr, sysTime, 0, countOfExeProcess, remainingTime, activeTemp, waitQueue);
+					int curr = activeTemp.peek();
 					Boolean pending = false;
 					if(remainingTime[curr] > p.quantum) {
 						remainingTime[curr] -= p.quantum;
@@ -239,6 +289,7 @@ public class JobScheduling {
 						remainingTime[curr] = 0;
 						p.processArray[curr].executed = true;
 						p.processArray[curr].finishTime = sysTime;
+						countOfExeProcess++;
 						waitQueue.remove(curr);
 					}
 					activeTemp.remove(curr);
@@ -261,7 +312,6 @@ public class JobScheduling {
 							waitQueue.add(temp[i]);
 					}
 				}
-				activeQueue.clear();
 				boolean flag = false;
 				for(int i = 0; i < p.noOfProcess; i++) {
 					if(!p.processArray[i].executed) {
@@ -307,11 +357,11 @@ public class JobScheduling {
 		* 			   and writes to a text file <inputFileName>_SRTF
 		* */
 		public void schedule(ProcessDetail p, String inputFileName) throws IOException {
-			p = this.getProcessFinishTime(p);
-			p = this.getProcessTAT(p);
-			p = this.getProcessWaitTime(p);
+			p = this.simulate(p);
 			String fileName = inputFileName + "_SRTF";
 			saveOutputFile(p, fileName);
+			if(checkpointer != null)
+				checkpointer.clear();
  		}
 		
 		public ProcessDetail getProcessFinishTime(ProcessDetail p) {
@@ -325,7 +375,16 @@ public class JobScheduling {
 	        long sysTime = p.processArray[0].arrivalTime;
 	        int shortest = 0; 
 	        Boolean newP = false;
+	        Snapshot resumed = checkpointer == null ? null : checkpointer.load(p, AlgorithmName.srtf);
+	        if(resumed != null) {
+	        	remainingTime = resumed.remainingTime;
+	        	countOfExeProcesses = resumed.countOfExeProcess;
+	        	sysTime = resumed.sysTime;
+	        	shortest = resumed.cursor;
+	        }
 	        while (countOfExeProcesses != p.noOfProcess) {
+	        	if(checkpointer != null && checkpointer.due())
+	        		checkpointer.save(p, AlgorithmName.srtf, sysTime, shortest, countOfExeProcesses, remainingTime, null, null);
 	        	
 	        	newP = false;
 	            for (int i = 0; i < p.noOfProcess; i++)  
@@ -437,6 +496,483 @@ public class JobScheduling {
 	}
 	/********* END: Scheduling Algorithm Implementation ****************************/
 	
+	/********* START: Live Execution Mode ******************************************/
+	
+	/**Class Name: LiveResult 
+	* Description: Wrapper class to hold the measured results of a live run for one process
+	* Attributes:
+	* finishTime, waitTime, turnArndTime: measured values, in trace time units
+	* dispatchLatencyNanos: total delay between handing a slice to the executor & the slice starting
+	* slices: number of slices the process was dispatched in
+	* */
+	class LiveResult {
+		double finishTime;
+		double waitTime;
+		double turnArndTime;
+		long dispatchLatencyNanos;
+		int slices;
+	};
+	
+	/**Class Name: LiveSlice
+	 * Description: CPU-bound unit of work handed to the executor. Spins for budgetNanos,
+	 * 				checking the clock at every yield point so a preempted process gives
+	 * 				the CPU back as soon as its slice is used up
+	 * */
+	class LiveSlice implements Runnable {
+		long budgetNanos;
+		long dispatchedAt;
+		long startedAt;
+		long endedAt;
+		LiveExecutor owner;
+		
+		public void run() {
+			startedAt = System.nanoTime();
+			long deadline = startedAt + budgetNanos;
+			long now = startedAt;
+			while(now < deadline) {
+				owner.burn();
+				now = System.nanoTime();
+			}
+			endedAt = now;
+		}
+	}
+	
+	/**Class Name: LiveExecutor
+	 * Description: Runs every process as a real CPU-bound task of cpuBurstTime trace units.
+	 * 				The calling thread acts as dispatcher & enforces the policy, the executor
+	 * 				acts as the CPU. Pass an executor with a single worker (e.g. ForkJoinPool(1))
+	 * 				so only one process runs at a time, like the simulated schedulers assume.
+	 * Attributes:
+	 * cpu: executor the slices are dispatched to
+	 * unitNanos: wall clock length of one trace time unit
+	 * */
+	public class LiveExecutor {
+		ExecutorService cpu;
+		long unitNanos;
+		volatile long sink;
+		
+		public LiveExecutor(ExecutorService cpu, long timeUnitMillis) {
+			this.cpu = cpu;
+			this.unitNanos = timeUnitMillis * 1000000L;
+		}
+		
+		/**Method: burn 
+		* Description: Short burst of arithmetic between two yield points
+		* */
+		void burn() {
+			long x = sink + 1;
+			for(int i = 0; i < 256; i++) {
+				x ^= x << 13;
+				x ^= x >>> 7;
+				x ^= x << 17;
+			}
+			sink = x;
+		}
+		
+		/**Method: warmUp 
+		* Description: Runs one throwaway slice of a time unit so starting the worker thread
+		* 			   & JIT compiling the slice path is not charged to the first measured process
+		* */
+		public void warmUp() throws InterruptedException, ExecutionException {
+			LiveSlice slice = new LiveSlice();
+			slice.owner = this;
+			slice.budgetNanos = unitNanos;
+			cpu.submit(slice).get();
+		}
+		
+		/**Method: execute 
+		* Description: Accepts the processes sorted by arrival & the policy to enforce,
+		* 			   runs them for real & returns the measured results, indexed like processArray
+		* */
+		public LiveResult[] execute(ProcessDetail p, String algorithmName) throws InterruptedException, ExecutionException {
+			LiveResult[] results = new LiveResult[p.noOfProcess];
+			long[] remainingTime = new long[p.noOfProcess];
+			for(int i = 0; i < p.noOfProcess; i++) {
+				results[i] = new LiveResult();
+				remainingTime[i] = p.processArray[i].cpuBurstTime;
+			}
+			
+			LinkedList<Integer> readyQueue = new LinkedList<Integer>();
+			/* Trace time t maps to wall clock base + t * unitNanos, the run starts at the first arrival */
+			long base = System.nanoTime() - p.processArray[0].arrivalTime * unitNanos;
+			/* Policy decisions use trace time & remaining times in trace units, like the simulation,
+			 * so dispatch overhead only shows up in the measured values & never changes the order */
+			long traceTime = p.processArray[0].arrivalTime;
+			int arrivalCursor = 0;
+			int countOfExeProcess = 0;
+			
+			while(countOfExeProcess != p.noOfProcess) {
+				arrivalCursor = admitArrivalsBefore(p, readyQueue, arrivalCursor, traceTime + 1);
+				if(readyQueue.isEmpty()) {
+					traceTime = p.processArray[arrivalCursor].arrivalTime;
+					long arrival = base + traceTime * unitNanos;
+					while(System.nanoTime() < arrival)
+						LockSupport.parkNanos(arrival - System.nanoTime());
+					continue;
+				}
+				
+				int curr = pickNext(p, readyQueue, remainingTime, algorithmName);
+				readyQueue.remove(Integer.valueOf(curr));
+				
+				long sliceUnits = remainingTime[curr];
+				if(algorithmName.equals(AlgorithmName.rr)) {
+					sliceUnits = Math.min(sliceUnits, p.quantum);
+				}
+				else if(algorithmName.equals(AlgorithmName.srtf) && arrivalCursor < p.noOfProcess) {
+					/* Preempt at the next arrival so the policy can re-evaluate remaining times */
+					sliceUnits = Math.min(sliceUnits, p.processArray[arrivalCursor].arrivalTime - traceTime);
+				}
+				
+				LiveSlice slice = new LiveSlice();
+				slice.owner = this;
+				slice.budgetNanos = sliceUnits * unitNanos;
+				slice.dispatchedAt = System.nanoTime();
+				cpu.submit(slice).get();
+				
+				results[curr].dispatchLatencyNanos += slice.startedAt - slice.dispatchedAt;
+				results[curr].slices++;
+				remainingTime[curr] -= sliceUnits;
+				traceTime += sliceUnits;
+				
+				if(remainingTime[curr] == 0) {
+					results[curr].finishTime = (double) (slice.endedAt - base) / unitNanos;
+					countOfExeProcess++;
+				}
+				else {
+					/* Like RoundRobin: arrivals before the end of the slice queue up ahead of the
+					 * preempted process, arrivals exactly at the end queue up behind it */
+					arrivalCursor = admitArrivalsBefore(p, readyQueue, arrivalCursor, traceTime);
+					readyQueue.add(curr);
+					arrivalCursor = admitArrivalsBefore(p, readyQueue, arrivalCursor, traceTime + 1);
+				}
+			}
+			
+			for(int i = 0; i < p.noOfProcess; i++) {
+				results[i].turnArndTime = results[i].finishTime - p.processArray[i].arrivalTime;
+				results[i].waitTime = Math.max(results[i].turnArndTime - p.processArray[i].cpuBurstTime, 0);
+			}
+			return results;
+		}
+		
+		int admitArrivalsBefore(ProcessDetail p, Queue<Integer> readyQueue, int arrivalCursor, long traceTime) {
+			while(arrivalCursor < p.noOfProcess && p.processArray[arrivalCursor].arrivalTime < traceTime) {
+				readyQueue.add(arrivalCursor);
+				arrivalCursor++;
+			}
+			return arrivalCursor;
+		}
+		
+		int pickNext(ProcessDetail p, Queue<Integer> readyQueue, long[] remainingTime, String algorithmName) {
+			int next = readyQueue.peek();
+			for(int i: readyQueue) {
+				if(algorithmName.equals(AlgorithmName.sjf) 
+						&& p.processArray[i].cpuBurstTime < p.processArray[next].cpuBurstTime)
+					next = i;
+				/* Ties go to the earliest arrival, which keeps the running process on the CPU
+				 * when a process with the same remaining time arrives, as in the simulation */
+				else if(algorithmName.equals(AlgorithmName.srtf) && (remainingTime[i] < remainingTime[next]
+						|| (remainingTime[i] == remainingTime[next] && i < next)))
+					next = i;
+			}
+			return next;
+		}
+	}
+	
+	/********* END: Live Execution Mode ********************************************/
+	
+	/********* START: Checkpointing ************************************************/
+	
+	/**Class Name: Snapshot 
+	* Description: Wrapper class to hold the loop state of a scheduler restored from a checkpoint.
+	* 			   Finish times & executed flags are restored straight into the ProcessDetail
+	* Attributes:
+	* sysTime: simulated clock
+	* cursor: scheduler specific position (SRTF: process currently considered shortest)
+	* countOfExeProcess: number of processes finished so far
+	* remainingTime: remaining burst of every process
+	* activeQueue: processes of the current round still to run, in order (RR only)
+	* queue: processes waiting for the next round, in order (RR only)
+	* */
+	class Snapshot {
+		long sysTime;
+		int cursor;
+		int countOfExeProcess;
+		long[] remainingTime;
+		int[] activeQueue;
+		int[] queue;
+	};
+	
+	/**Class Name: Checkpointer
+	 * Description: Periodically writes the state of a running scheduler to a binary snapshot
+	 * 				& hands it back on the next run so the scheduler resumes where it stopped.
+	 * 				A snapshot is written to <snapshotFile>.tmp, synced & renamed over the previous
+	 * 				one, so a crash never leaves a half written snapshot behind.
+	 * Attributes:
+	 * intervalNanos: minimum time between two snapshots
+	 * maxOverhead: fraction of run time snapshots may take, the gap after a slow snapshot
+	 * 				is stretched to keep below it
+	 * */
+	public class Checkpointer {
+		static final int MAGIC = 0x4A534350;
+		static final int VERSION = 2;
+		
+		Path snapshotFile;
+		Path tempFile;
+		long intervalNanos;
+		double maxOverhead;
+		long nextDue;
+		long fingerprint;
+		
+		public Checkpointer(String snapshotFileName, long intervalMillis, double maxOverhead) {
+			this.snapshotFile = Paths.get(snapshotFileName);
+			this.tempFile = Paths.get(snapshotFileName + ".tmp");
+			this.intervalNanos = intervalMillis * 1000000L;
+			this.maxOverhead = maxOverhead;
+			this.nextDue = System.nanoTime() + intervalNanos;
+		}
+		
+		/**Method: due 
+		* Description: Cheap check, called once per scheduler iteration
+		* */
+		public boolean due() {
+			return System.nanoTime() - nextDue >= 0;
+		}
+		
+		/**Method: save 
+		* Description: Writes the scheduler state. Remaining & finish times are zigzag varints,
+		* 			   executed flags a bitset, so untouched & finished processes cost a few bytes each
+		* */
+		public void save(ProcessDetail p, String algorithmName, long sysTime, int cursor, int countOfExeProcess,
+				long[] remainingTime, Queue<Integer> activeQueue, Queue<Integer> queue) {
+			long start = System.nanoTime();
+			BitSet executed = new BitSet(p.noOfProcess);
+			for(int i = 0; i < p.noOfProcess; i++)
+				if(p.processArray[i].executed)
+					executed.set(i);
+			long[] executedWords = executed.toLongArray();
+			
+			try(FileOutputStream fos = new FileOutputStream(tempFile.toFile());
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeUTF(algorithmName);
+				out.writeLong(fingerprint(p));
+				out.writeInt(p.noOfProcess);
+				out.writeLong(sysTime);
+				out.writeInt(cursor);
+				out.writeInt(countOfExeProcess);
+				out.writeInt(executedWords.length);
+				for(long w: executedWords)
+					out.writeLong(w);
+				for(int i = 0; i < p.noOfProcess; i++) {
+					writeVarLong(out, remainingTime[i]);
+					writeVarLong(out, p.processArray[i].finishTime);
+				}
+				writeQueue(out, activeQueue);
+				writeQueue(out, queue);
+				out.flush();
+				fos.getFD().sync();
+			}
+			catch(IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			
+			try {
+				replaceFile(tempFile, snapshotFile);
+			}
+			catch(IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			long now = System.nanoTime();
+			nextDue = now + Math.max(intervalNanos, (long) ((now - start) / maxOverhead));
+		}
+		
+		/**Method: load 
+		* Description: Returns the state of the last snapshot, or null if there is none. 
+		* 			   Throws if the snapshot belongs to another algorithm or input
+		* */
+		public Snapshot load(ProcessDetail p, String algorithmName) {
+			if(!Files.exists(snapshotFile))
+				return null;
+			try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile), 1 << 16))) {
+				if(in.readInt() != MAGIC || in.readInt() != VERSION)
+					throw new IOException("Not a scheduler snapshot: " + snapshotFile);
+				String algo = in.readUTF();
+				if(!algo.equals(algorithmName) || in.readLong() != fingerprint(p) || in.readInt() != p.noOfProcess)
+					throw new IOException("Snapshot " + snapshotFile + " was taken for " + algo + " on a different input");
+				
+				Snapshot s = new Snapshot();
+				s.sysTime = in.readLong();
+				s.cursor = in.readInt();
+				s.countOfExeProcess = in.readInt();
+				long[] executedWords = new long[in.readInt()];
+				for(int i = 0; i < executedWords.length; i++)
+					executedWords[i] = in.readLong();
+				BitSet executed = BitSet.valueOf(executedWords);
+				s.remainingTime = new long[p.noOfProcess];
+				for(int i = 0; i < p.noOfProcess; i++) {
+					s.remainingTime[i] = readVarLong(in);
+					p.processArray[i].finishTime = readVarLong(in);
+					p.processArray[i].executed = executed.get(i);
+				}
+				s.activeQueue = readQueue(in);
+				s.queue = readQueue(in);
+				System.out.println("Resuming " + algorithmName + " from " + snapshotFile + " at time " + s.sysTime);
+				return s;
+			}
+			catch(IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+		
+		/**Method: clear 
+		* Description: Removes the snapshot once the scheduler's output file has been written
+		* */
+		public void clear() {
+			try {
+				Files.deleteIfExists(snapshotFile);
+				Files.deleteIfExists(tempFile);
+			}
+			catch(IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+		
+		/* Computed once per run */
+		long fingerprint(ProcessDetail p) {
+			if(fingerprint == 0)
+				fingerprint = getProcessFingerprint(p);
+			return fingerprint;
+		}
+		
+		void writeQueue(DataOutputStream out, Queue<Integer> queue) throws IOException {
+			out.writeInt(queue == null ? 0 : queue.size());
+			if(queue != null)
+				for(int i: queue)
+					writeVarLong(out, i);
+		}
+		
+		int[] readQueue(DataInputStream in) throws IOException {
+			int[] queue = new int[in.readInt()];
+			for(int i = 0; i < queue.length; i++)
+				queue[i] = (int) readVarLong(in);
+			return queue;
+		}
+		
+		void writeVarLong(DataOutputStream out, long v) throws IOException {
+			v = (v << 1) ^ (v >> 63);
+			while((v & ~0x7FL) != 0) {
+				out.writeByte((int) ((v & 0x7F) | 0x80));
+				v >>>= 7;
+			}
+			out.writeByte((int) v);
+		}
+		
+		long readVarLong(DataInputStream in) throws IOException {
+			long v = 0;
+			int shift = 0;
+			int b;
+			do {
+				b = in.readUnsignedByte();
+				v |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while((b & 0x80) != 0);
+			return (v >>> 1) ^ -(v & 1);
+		}
+	}
+	
+	/**Class Name: RunLog
+	 * Description: Tracks a checkpointed run of several algorithms in <inputFileName>_run.ckpt.
+	 * 				The first line is "fingerprint <n>" for the input the run belongs to, followed by
+	 * 				one line per algorithm: <algo> <output-offset> <pending|done>.
+	 * 				output-offset is the length of the output file before the algorithm started
+	 * 				writing, so a rerun can cut off lines appended by the interrupted attempt
+	 * */
+	public class RunLog {
+		Path logFile;
+		Path tempFile;
+		String outputPrefix;
+		long fingerprint;
+		List<String> entries = new ArrayList<String>();
+		
+		/* p must be sorted by arrival, like the schedulers see it */
+		public RunLog(String inputFileName, ProcessDetail p) throws IOException {
+			outputPrefix = inputFileName.substring(inputFileName.lastIndexOf("/") + 1);
+			logFile = Paths.get(outputPrefix + "_run.ckpt");
+			tempFile = Paths.get(outputPrefix + "_run.ckpt.tmp");
+			fingerprint = getProcessFingerprint(p);
+			if(Files.exists(logFile)) {
+				List<String> lines = Files.readAllLines(logFile, StandardCharsets.UTF_8);
+				if(lines.isEmpty() || !lines.get(0).equals("fingerprint " + fingerprint))
+					throw new IOException("Run log " + logFile + " was written for a different input");
+				entries.addAll(lines.subList(1, lines.size()));
+			}
+		}
+		
+		public boolean isDone(String algorithmName) {
+			String[] entry = find(algorithmName);
+			return entry != null && entry[2].equals("done");
+		}
+		
+		/**Method: begin 
+		* Description: Called before an algorithm runs. First attempt: records the output file length.
+		* 			   Rerun: truncates the output file back to the recorded length
+		* */
+		public void begin(String algorithmName) throws IOException {
+			Path output = Paths.get(outputPrefix + "_" + algorithmName);
+			String[] entry = find(algorithmName);
+			if(entry != null) {
+				if(Files.exists(output))
+					try(FileChannel channel = FileChannel.open(output, StandardOpenOption.WRITE)) {
+						channel.truncate(Long.parseLong(entry[1]));
+					}
+				return;
+			}
+			long offset = Files.exists(output) ? Files.size(output) : 0;
+			entries.add(algorithmName + " " + offset + " pending");
+			save();
+		}
+		
+		/**Method: finish 
+		* Description: Called once the algorithm's output file has been written
+		* */
+		public void finish(String algorithmName) throws IOException {
+			String[] entry = find(algorithmName);
+			entries.set(entries.indexOf(String.join(" ", entry)), entry[0] + " " + entry[1] + " done");
+			save();
+		}
+		
+		/**Method: clear 
+		* Description: Removes the log once every algorithm of the run has finished
+		* */
+		public void clear() throws IOException {
+			Files.deleteIfExists(logFile);
+			Files.deleteIfExists(tempFile);
+		}
+		
+		String[] find(String algorithmName) {
+			for(String line: entries) {
+				String[] entry = line.split(" ");
+				if(entry[0].equals(algorithmName))
+					return entry;
+			}
+			return null;
+		}
+		
+		void save() throws IOException {
+			List<String> lines = new ArrayList<String>();
+			lines.add("fingerprint " + fingerprint);
+			lines.addAll(entries);
+			Files.write(tempFile, lines, StandardCharsets.UTF_8);
+			try(FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+				channel.force(true);
+			}
+			replaceFile(tempFile, logFile);
+		}
+	}
+	
+	/********* END: Checkpointing **************************************************/
+	
 	
 	/********* START: Utility Methods **********************************************/
 	/**Method: sortProcessByArrival 
@@ -537,6 +1073,130 @@ public class JobScheduling {
                     StandardOpenOption.APPEND);
 	}
 	
+	/**Method: copyProcessDetail 
+	* Description: Accepts the ProcessDetail & returns a deep copy, in the same order
+	* Parameters: 
+	* p: Original ProcessDetail
+	* Returns: ProcessDetail
+	* */
+	public ProcessDetail copyProcessDetail(ProcessDetail p) {
+		ProcessDetail copy = new ProcessDetail();
+		copy.quantum = p.quantum;
+		copy.noOfProcess = p.noOfProcess;
+		copy.processArray = new Process[p.noOfProcess];
+		for(int i = 0; i < p.noOfProcess; i++) {
+			copy.processArray[i] = new Process();
+			copy.processArray[i].pId = p.processArray[i].pId;
+			copy.processArray[i].arrivalTime = p.processArray[i].arrivalTime;
+			copy.processArray[i].cpuBurstTime = p.processArray[i].cpuBurstTime;
+			copy.processArray[i].finishTime = p.processArray[i].finishTime;
+			copy.processArray[i].waitTime = p.processArray[i].waitTime;
+			copy.processArray[i].turnArndTime = p.processArray[i].turnArndTime;
+			copy.processArray[i].executed = p.processArray[i].executed;
+		}
+		return copy;
+	}
+	
+	/**Method: newScheduler 
+	* Description: Accepts a single algorithm name & returns the matching Scheduler
+	* */
+	public Scheduler newScheduler(String algorithmName) {
+		if(algorithmName.equals(AlgorithmName.fcfs))
+			return new FirstComeFirstServe();
+		else if(algorithmName.equals(AlgorithmName.sjf))
+			return new ShortJobFirst();
+		else if(algorithmName.equals(AlgorithmName.rr))
+			return new RoundRobin();
+		else if(algorithmName.equals(AlgorithmName.srtf))
+			return new ShortestRemainingTimeFirst();
+		throw new IllegalArgumentException("Unknown algorithm " + algorithmName);
+	}
+	
+	/**Method: replaceFile 
+	* Description: Atomically renames an already synced temp file over target, then syncs the
+	* 			   directory so the rename itself survives a crash of the machine
+	* */
+	public void replaceFile(Path tempFile, Path target) throws IOException {
+		Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		try(FileChannel dir = FileChannel.open(target.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+			dir.force(true);
+		}
+		catch(AccessDeniedException ex) {
+			/* Windows cannot open a directory, the rename is left to the file system there */
+		}
+	}
+	
+	/**Method: getProcessFingerprint 
+	* Description: Accepts the ProcessDetail & returns a hash of the quantum & every process
+	* 			   in array order, used to tie checkpoint files to the input they were taken on
+	* */
+	public long getProcessFingerprint(ProcessDetail p) {
+		long h = 1125899906842597L + p.quantum;
+		for(int i = 0; i < p.noOfProcess; i++) {
+			h = 31 * h + p.processArray[i].pId;
+			h = 31 * h + p.processArray[i].arrivalTime;
+			h = 31 * h + p.processArray[i].cpuBurstTime;
+		}
+		return h == 0 ? 1 : h;
+	}
+	
+	/**Method: newCheckpointer 
+	* Description: Returns a Checkpointer writing <inputFileName>_<algo>.ckpt in the working directory,
+	* 			   or null if checkpointing is disabled
+	* Parameters: 
+	* intervalMillis: minimum time between snapshots, 0 disables checkpointing
+	* maxOverhead: fraction of run time snapshots may take, e.g. 0.05
+	* */
+	public Checkpointer newCheckpointer(String inputFileName, String algorithmName, long intervalMillis, double maxOverhead) {
+		if(intervalMillis <= 0)
+			return null;
+		if(maxOverhead <= 0 || maxOverhead > 1)
+			throw new IllegalArgumentException("maxOverhead must be in (0, 1], got " + maxOverhead);
+		String fileName = inputFileName.substring(inputFileName.lastIndexOf("/") + 1) + "_" + algorithmName + ".ckpt";
+		return new Checkpointer(fileName, intervalMillis, maxOverhead);
+	}
+	
+	/**Method: saveLiveOutputFile 
+	* Description: Accepts the simulated & measured results of the same processes
+	* 			   (both indexed like sim.processArray), write & save to a text file 
+	* Parameters: 
+	* sim: ProcessDetail holding the simulated results
+	* live: measured results, the format for each process is
+	* 		<process-id> <sim-finish> <live-finish> <sim-wait> <live-wait> <sim-tat> <live-tat> <dispatch-latency-us>
+	* fileName: Input File Name 
+	* Returns: void
+	* */
+	public void saveLiveOutputFile(ProcessDetail sim, LiveResult[] live, String fileName) throws IOException {
+		fileName = fileName.substring(fileName.lastIndexOf("/") + 1);
+		Integer[] byPid = new Integer[sim.noOfProcess];
+		for(int i = 0; i < sim.noOfProcess; i++)
+			byPid[i] = i;
+		Arrays.sort(byPid, (a, b) -> Long.compare(sim.processArray[a].pId, sim.processArray[b].pId));
+		
+		String[] process = new String[sim.noOfProcess];
+		double finishErr = 0;
+		long latency = 0;
+		int slices = 0;
+		for(int k = 0; k < sim.noOfProcess; k++) {
+			int i = byPid[k];
+			Process s = sim.processArray[i];
+			process[k] = String.format("%d %d %.2f %d %.2f %d %.2f %d", 
+						 s.pId, s.finishTime, live[i].finishTime, s.waitTime, live[i].waitTime,
+						 s.turnArndTime, live[i].turnArndTime, live[i].dispatchLatencyNanos / 1000);
+			finishErr += Math.abs(live[i].finishTime - s.finishTime);
+			latency += live[i].dispatchLatencyNanos;
+			slices += live[i].slices;
+		}
+		System.out.println(String.format("%s: mean |live - sim| finish %.3f units, mean dispatch latency %d us over %d slices", 
+						   fileName, finishErr / sim.noOfProcess, latency / Math.max(slices, 1) / 1000, slices));
+		List<String> lines = Arrays.asList(process);
+        Files.write(Paths.get(fileName), 
+                    lines, 
+                    StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, 
+                    StandardOpenOption.APPEND);
+	}
+	
 	/**Method: getProcesses 
 	* Description: Accepts the filename, read the text file & returns the process 
 	* as per the wrapper classes above
@@ -594,55 +1254,81 @@ public class JobScheduling {
 	* Returns: void
 	* */
 	public static void scheduleProcesses(ProcessDetail processDetail, JobScheduling js, String algorithmName, String inputFileName) throws IOException {
-		if(algorithmName.equals(AlgorithmName.allAlgos)) {
-			processDetail = js.resetProcessDetail(processDetail);
-		    processDetail = js.sortProcessByArrival(processDetail);
-		    Scheduler sc = js.new FirstComeFirstServe();
-		    sc.schedule(processDetail, inputFileName);
-		    
-		    processDetail = js.resetProcessDetail(processDetail);
-		    processDetail = js.sortProcessByArrival(processDetail);
-		    sc = js.new ShortJobFirst();
-		    sc.schedule(processDetail, inputFileName);
-		    
-		    processDetail = js.resetProcessDetail(processDetail);
-		    processDetail = js.sortProcessByArrival(processDetail);
-		    sc = js.new RoundRobin();
-		    sc.schedule(processDetail, inputFileName);
-		    
-		    processDetail = js.resetProcessDetail(processDetail);
-		    processDetail = js.sortProcessByArrival(processDetail);
-		    sc = js.new ShortestRemainingTimeFirst();
-		    sc.schedule(processDetail, inputFileName);
-		}
-		else if(algorithmName.equals(AlgorithmName.fcfs)) {
-			processDetail = js.resetProcessDetail(processDetail);
-		    processDetail = js.sortProcessByArrival(processDetail);
-		    Scheduler sc = js.new FirstComeFirstServe();
-		    sc.schedule(processDetail, inputFileName);
+		scheduleProcesses(processDetail, js, algorithmName, inputFileName, 0, 0.05);
+	}
+	
+	/**Method: scheduleProcesses 
+	* Description: Same as above, RR & SRTF checkpoint every checkpointIntervalMillis (0 disables),
+	* 			   stretching the gap after a slow snapshot so snapshots take at most maxOverhead
+	* 			   of the run time. A rerun after a crash skips the algorithms that already finished,
+	* 			   drops output the interrupted algorithm had written & resumes it from its snapshot
+	* Returns: void
+	* */
+	public static void scheduleProcesses(ProcessDetail processDetail, JobScheduling js, String algorithmName, String inputFileName, 
+			long checkpointIntervalMillis, double maxOverhead) throws IOException {
+		String[] algos = { algorithmName };
+		if(algorithmName.equals(AlgorithmName.allAlgos))
+			algos = new String[] { AlgorithmName.fcfs, AlgorithmName.sjf, AlgorithmName.rr, AlgorithmName.srtf };
+		
+		RunLog runLog = null;
+		if(checkpointIntervalMillis > 0) {
+			/* The run log is tied to the input in the order the schedulers see it */
+			processDetail = js.sortProcessByArrival(processDetail);
+			runLog = js.new RunLog(inputFileName, processDetail);
 		}
-		else if(algorithmName.equals(AlgorithmName.sjf)) {
+		for(String algo: algos) {
+			if(runLog != null && runLog.isDone(algo)) {
+				System.out.println("Skipping " + algo + ", finished before the interruption");
+				continue;
+			}
 			processDetail = js.resetProcessDetail(processDetail);
 		    processDetail = js.sortProcessByArrival(processDetail);
-		    Scheduler sc = js.new ShortJobFirst();
+		    Scheduler sc = js.newScheduler(algo);
+		    sc.checkpointer = js.newCheckpointer(inputFileName, algo, checkpointIntervalMillis, maxOverhead);
+		    if(runLog != null)
+		    	runLog.begin(algo);
 		    sc.schedule(processDetail, inputFileName);
+		    if(runLog != null)
+		    	runLog.finish(algo);
 		}
-		else if(algorithmName.equals(AlgorithmName.rr)) {
-			processDetail = js.resetProcessDetail(processDetail);
-		    processDetail = js.sortProcessByArrival(processDetail);
-		    Scheduler sc = js.new RoundRobin();
-		    sc.schedule(processDetail, inputFileName);
+		if(runLog != null)
+			runLog.clear();
+	}
+	
+	/**Method: executeProcessesLive 
+	* Description: Accepts the processes & choice of algorithm, runs them as real CPU-bound
+	* 			   tasks on a single worker ForkJoinPool & saves an output file <inputFileName>_<algo>_LIVE
+	* 			   comparing measured against simulated results
+	* Parameters: 
+	* timeUnitMillis: wall clock length of one trace time unit
+	* Returns: void
+	* */
+	public static void executeProcessesLive(ProcessDetail processDetail, JobScheduling js, String algorithmName, 
+			String inputFileName, long timeUnitMillis) throws IOException, InterruptedException, ExecutionException {
+		String[] algos = { algorithmName };
+		if(algorithmName.equals(AlgorithmName.allAlgos))
+			algos = new String[] { AlgorithmName.fcfs, AlgorithmName.sjf, AlgorithmName.rr, AlgorithmName.srtf };
+		
+		ExecutorService cpu = new ForkJoinPool(1);
+		try {
+			LiveExecutor executor = js.new LiveExecutor(cpu, timeUnitMillis);
+			executor.warmUp();
+			for(String algo: algos) {
+				processDetail = js.resetProcessDetail(processDetail);
+			    processDetail = js.sortProcessByArrival(processDetail);
+			    ProcessDetail sim = js.newScheduler(algo).simulate(js.copyProcessDetail(processDetail));
+			    LiveResult[] live = executor.execute(processDetail, algo);
+			    js.saveLiveOutputFile(sim, live, inputFileName + "_" + algo + "_LIVE");
+			}
 		}
-		 if(algorithmName.equals(AlgorithmName.srtf)) {
-			processDetail = js.resetProcessDetail(processDetail);
-		    processDetail = js.sortProcessByArrival(processDetail);
-		    Scheduler sc = js.new ShortestRemainingTimeFirst();
-		    sc.schedule(processDetail, inputFileName);
+		finally {
+			cpu.shutdown();
 		}
 	}
 	
 	/**Method: main 
 	 * Description: Driver Method to run Scheduling jobs
+	 * Usage: JobScheduling <inputFile> [live [timeUnitMillis] | checkpoint [intervalMillis [maxOverhead]]]
 	 * */
 	public static void main(String[] args) {
 		try {
@@ -663,7 +1349,17 @@ public class JobScheduling {
 			     * AlgorithmName.sjf: To run Shortest Job First
 			     * AlgorithmName.srtf: To run Shortest Remaining Time First 
 			     * */
-			    scheduleProcesses(processDetail, js, AlgorithmName.allAlgos, inputFileName);
+			    if(1 < args.length && args[1].equals("live")) {
+			    	long timeUnitMillis = 2 < args.length ? Long.parseLong(args[2]) : 1;
+			    	executeProcessesLive(processDetail, js, AlgorithmName.allAlgos, inputFileName, timeUnitMillis);
+			    }
+			    else if(1 < args.length && args[1].equals("checkpoint")) {
+			    	long intervalMillis = 2 < args.length ? Long.parseLong(args[2]) : 60000;
+			    	double maxOverhead = 3 < args.length ? Double.parseDouble(args[3]) : 0.05;
+			    	scheduleProcesses(processDetail, js, AlgorithmName.allAlgos, inputFileName, intervalMillis, maxOverhead);
+			    }
+			    else
+			    	scheduleProcesses(processDetail, js, AlgorithmName.allAlgos, inputFileName);
 			    /* END: Process Scheduling */
 			}
 		}